@@ -0,0 +1,292 @@
+package RobotSim;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An unchangeable copy of the arena's robots at one tick, for reading from other threads.
+ * Positions and directions are copied into primitive arrays, so a snapshot stays valid however the arena moves on.
+ * The robots are stored sorted by cell (y * width + x), so a region query binary-searches each row of the rectangle
+ * instead of scanning every robot. Sorting costs O(n log n) on the simulation thread each time a snapshot is taken.
+ */
+public class ArenaSnapshot {
+
+    private final long tick;           // Tick the arena was at when the snapshot was taken
+    private final int xmax, ymax;      // Dimensions of the arena
+    private final int inside;          // Number of robots inside the arena, stored first and sorted by cell
+    private final int[] ids;           // Robot IDs, followed by any robots outside the arena in list order
+    private final int[] xs, ys;        // Robot positions
+    private final byte[] directions;   // Direction ordinals
+    private final long takenNanos;     // System.nanoTime() when the snapshot was taken
+    private final double ticksPerSecond;  // Tick rate since the previous snapshot
+
+    /**
+     * Takes a snapshot of an arena. Must be called on the thread that moves the arena.
+     * @param arena The arena to copy.
+     * @param previous The previous snapshot of the same simulation, used to work out the tick rate, or null.
+     */
+    public ArenaSnapshot(RobotArena arena, ArenaSnapshot previous) {
+        tick = arena.getTick();
+        xmax = arena.getXMax();
+        ymax = arena.getYMax();
+        // Copy in list order first, so the Robot objects are read one after another rather than in cell order
+        List<Robot> robots = arena.getRobots();
+        int n = robots.size();
+        int[] listIds = new int[n];
+        int[] listXs = new int[n];
+        int[] listYs = new int[n];
+        byte[] listDirections = new byte[n];
+        int count = 0;
+        int i = 0;
+        for (Robot r : robots) {
+            listIds[i] = r.getRobotId();
+            listXs[i] = r.getX();
+            listYs[i] = r.getY();
+            listDirections[i] = (byte) r.getDirection().ordinal();
+            if (inArena(listXs[i], listYs[i])) {
+                count++;
+            }
+            i++;
+        }
+
+        int[] order = cellOrder(listXs, listYs, count);
+        ids = new int[n];
+        xs = new int[n];
+        ys = new int[n];
+        directions = new byte[n];
+        for (i = 0; i < n; i++) {
+            ids[i] = listIds[order[i]];
+            xs[i] = listXs[order[i]];
+            ys[i] = listYs[order[i]];
+            directions[i] = listDirections[order[i]];
+        }
+        inside = count;
+        takenNanos = System.nanoTime();
+
+        // Rate over the time between this snapshot and the one before, 0 if the ticks went backwards (e.g. a rewind)
+        if (previous != null && tick > previous.tick && takenNanos > previous.takenNanos) {
+            ticksPerSecond = (tick - previous.tick) * 1e9 / (takenNanos - previous.takenNanos);
+        } else {
+            ticksPerSecond = 0;
+        }
+    }
+
+    /**
+     * Works out the order the robots are stored in: robots inside the arena sorted by cell, then any robots outside it
+     * (only possible after a rewind) in list order.
+     * @param xs The robots' x-coordinates, in list order.
+     * @param ys The robots' y-coordinates, in list order.
+     * @param count The number of robots inside the arena.
+     * @return The position in the robot list of each robot, in storage order.
+     */
+    private int[] cellOrder(int[] xs, int[] ys, int count) {
+        int n = xs.length;
+        int[] order = new int[n];
+        int k = 0;
+        int outside = count;
+        for (int i = 0; i < n; i++) {
+            if (inArena(xs[i], ys[i])) {
+                order[k++] = i;
+            } else {
+                order[outside++] = i;
+            }
+        }
+
+        int shift = 32 - Integer.numberOfLeadingZeros(n);  // Bits needed for a list position
+        if ((long) xmax + ymax <= 4L * count + 1024) {
+            // Few rows and columns for the number of robots: counting sort by x, then a stable one by y
+            int[] byX = new int[count];
+            int[] start = new int[Math.max(xmax, ymax) + 1];
+            for (int i = 0; i < count; i++) {
+                start[xs[order[i]] + 1]++;
+            }
+            for (int x = 0; x < xmax; x++) {
+                start[x + 1] += start[x];
+            }
+            for (int i = 0; i < count; i++) {
+                byX[start[xs[order[i]]]++] = order[i];
+            }
+            Arrays.fill(start, 0);
+            for (int i = 0; i < count; i++) {
+                start[ys[byX[i]] + 1]++;
+            }
+            for (int y = 0; y < ymax; y++) {
+                start[y + 1] += start[y];
+            }
+            for (int i = 0; i < count; i++) {
+                order[start[ys[byX[i]]]++] = byX[i];
+            }
+        } else if ((long) xmax * ymax <= 1L << (63 - shift)) {
+            // Each key holds the cell in the high bits and the list position in the low bits, so one primitive sort will do
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = cell(xs[order[i]], ys[order[i]]) << shift | order[i];
+            }
+            Arrays.sort(keys);
+            long mask = (1L << shift) - 1;
+            for (int i = 0; i < count; i++) {
+                order[i] = (int) (keys[i] & mask);
+            }
+        } else {
+            // A huge, sparse arena whose cells and positions do not fit in one long together
+            Integer[] boxed = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                boxed[i] = order[i];
+            }
+            Arrays.sort(boxed, Comparator.comparingLong(i -> cell(xs[i], ys[i])));
+            for (int i = 0; i < count; i++) {
+                order[i] = boxed[i];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Checks whether a position lies inside the arena.
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return True if the position is inside the arena.
+     */
+    private boolean inArena(int x, int y) {
+        return x >= 0 && x < xmax && y >= 0 && y < ymax;
+    }
+
+    /**
+     * Gets the cell index of a position inside the arena.
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The cell index (y * width + x).
+     */
+    private long cell(int x, int y) {
+        return (long) y * xmax + x;
+    }
+
+    /**
+     * Finds the first robot inside the arena whose cell is not before the given cell.
+     * @param target The cell to search for.
+     * @param from The index to start searching from.
+     * @return The index of the robot, or the number of robots inside the arena if there is none.
+     */
+    private int lowerBound(long target, int from) {
+        int lo = from;
+        int hi = inside;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cell(xs[mid], ys[mid]) < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Gets the tick the arena was at when the snapshot was taken.
+     * @return The tick.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the number of robots in the snapshot.
+     * @return The robot count.
+     */
+    public int getRobotCount() {
+        return ids.length;
+    }
+
+    /**
+     * Gets the width of the arena.
+     * @return The maximum x-coordinate (width) of the arena.
+     */
+    public int getXMax() {
+        return xmax;
+    }
+
+    /**
+     * Gets the height of the arena.
+     * @return The maximum y-coordinate (height) of the arena.
+     */
+    public int getYMax() {
+        return ymax;
+    }
+
+    /**
+     * Gets the tick rate measured between the previous snapshot and this one.
+     * @return Ticks per second, or 0 if it could not be measured.
+     */
+    public double getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    /**
+     * Gets how long ago the snapshot was taken.
+     * @return The age in milliseconds.
+     */
+    public long getAgeMillis() {
+        return (System.nanoTime() - takenNanos) / 1_000_000;
+    }
+
+    /**
+     * Lists the robots inside a rectangle, one line per robot in the same "x y DIRECTION" style as a saved arena,
+     * prefixed by the robot's ID. Lines are written as they are found, so nothing is built up in memory.
+     * Robots are listed in cell order; the cost grows with the rows of the rectangle that hold robots, not with the
+     * size of the arena.
+     * @param x0 The lowest x-coordinate of the rectangle.
+     * @param y0 The lowest y-coordinate of the rectangle.
+     * @param x1 The highest x-coordinate of the rectangle (inclusive).
+     * @param y1 The highest y-coordinate of the rectangle (inclusive).
+     * @param limit The most robots to list.
+     * @param out Where to write the lines.
+     * @return True if every robot in the rectangle was listed, false if the list was cut off at the limit.
+     * @throws IOException If writing fails.
+     */
+    public boolean robotsInRegion(int x0, int y0, int x1, int y1, int limit, Writer out) throws IOException {
+        Direction[] values = Direction.values();
+        int found = 0;
+
+        // Robots inside the arena: each row of the rectangle is a run of consecutive cells
+        int cx0 = Math.max(x0, 0);
+        int cx1 = Math.min(x1, xmax - 1);
+        long y = Math.max(y0, 0);
+        long lastRow = Math.min(y1, ymax - 1);
+        int i = 0;
+        while (cx0 <= cx1 && y <= lastRow) {
+            i = lowerBound(y * xmax + cx0, i);
+            if (i == inside) {
+                break;
+            }
+            long row = ys[i];
+            if (row > y) {
+                y = row;  // Skip the empty rows in between
+                continue;
+            }
+            long last = y * xmax + cx1;
+            for (; i < inside && cell(xs[i], ys[i]) <= last; i++) {
+                if (found == limit) {
+                    return false;  // At least one more robot than the limit allows
+                }
+                out.write(ids[i] + " " + xs[i] + " " + ys[i] + " " + values[directions[i]] + "\n");
+                found++;
+            }
+            y++;
+        }
+
+        // Robots outside the arena, if any, are checked one by one
+        for (i = inside; i < ids.length; i++) {
+            if (xs[i] >= x0 && xs[i] <= x1 && ys[i] >= y0 && ys[i] <= y1) {
+                if (found == limit) {
+                    return false;
+                }
+                out.write(ids[i] + " " + xs[i] + " " + ys[i] + " " + values[directions[i]] + "\n");
+                found++;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,326 @@
+package RobotSim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads and writes the arena state in a compact binary format, as an alternative to the text format of RobotArena.toString().
+ * Robots are sorted by cell index (y * width + x), so each position is stored as a small varint gap from the previous robot.
+ * Directions are packed at 2 bits each, one byte after every group of four robots, and the body can optionally be deflated.
+ * Both directions work on streams, so the arena is never turned into one big String.
+ *
+ * Layout: "RSZ" magic, version byte, flags byte (bit 0 = deflated), then varint width, height and robot count,
+ * followed by the robots in groups of four (four position gaps, then one direction byte).
+ * Robots are written in cell order, so the order of the robot list (and the move order) is not kept when reloading.
+ */
+public class CompressedSnapshot {
+
+    private static final byte[] MAGIC = {'R', 'S', 'Z'};  // Identifies a compressed snapshot
+    private static final int VERSION = 1;                 // Format version written after the magic
+    private static final int FLAG_DEFLATED = 1;           // Set when the body is wrapped in a Deflater stream
+    private static final int GROUP = 4;                   // Robots per packed direction byte
+
+    /**
+     * Writes the arena to a stream in the compressed format.
+     * The stream is flushed but not closed.
+     * @param arena The arena to save.
+     * @param out The stream to write to.
+     * @param deflate True to wrap the body in a Deflater stream as well.
+     * @throws IOException If writing fails or a robot lies outside the arena.
+     */
+    public static void write(RobotArena arena, OutputStream out, boolean deflate) throws IOException {
+        int xmax = arena.getXMax();
+        int ymax = arena.getYMax();
+
+        // Each key holds the cell index in the high bits and the direction in the low 2 bits,
+        // so one primitive sort orders the robots by cell without copying any Robot objects
+        long[] keys = new long[arena.getRobots().size()];
+        int n = 0;
+        for (Robot r : arena.getRobots()) {
+            if (r.getX() < 0 || r.getX() >= xmax || r.getY() < 0 || r.getY() >= ymax) {
+                throw new IOException("Robot " + r.getRobotId() + " is outside the arena at (" + r.getX() + ", " + r.getY() + ")");
+            }
+            long cell = (long) r.getY() * xmax + r.getX();
+            keys[n++] = (cell << 2) | r.getDirection().ordinal();
+        }
+        Arrays.sort(keys);
+
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(deflate ? FLAG_DEFLATED : 0);
+
+        // The caller's stream stays open, so the Deflater is ended here rather than by closing the stream
+        Deflater def = deflate ? new Deflater() : null;
+        try {
+            DeflaterOutputStream deflater = deflate ? new DeflaterOutputStream(out, def, true) : null;
+            Encoder enc = new Encoder(deflate ? deflater : out);
+            enc.writeVarint(xmax);
+            enc.writeVarint(ymax);
+            enc.writeVarint(n);
+
+            long previous = 0;
+            for (int start = 0; start < n; start += GROUP) {
+                int end = Math.min(start + GROUP, n);
+                int packed = 0;
+                for (int i = start; i < end; i++) {
+                    long cell = keys[i] >>> 2;
+                    enc.writeVarint(cell - previous);  // Gap from the previous robot, never negative once sorted
+                    previous = cell;
+                    packed |= (int) (keys[i] & 3) << (2 * (i - start));
+                }
+                enc.writeByte(packed);
+            }
+            enc.flush();
+
+            if (deflater != null) {
+                deflater.finish();  // Completes the compressed body without closing the caller's stream
+            }
+            out.flush();
+        } finally {
+            if (def != null) {
+                def.end();  // Frees the native zlib memory straight away
+            }
+        }
+    }
+
+    /**
+     * Reads a compressed snapshot from a stream into the arena, replacing its dimensions and robots.
+     * The whole snapshot is decoded before the arena is touched, so a damaged snapshot leaves the arena as it was.
+     * A plain snapshot is read byte by byte and nothing after it is consumed, so several can follow each other in one stream;
+     * pass a BufferedInputStream for speed. When the body is deflated the rest of the stream may be consumed.
+     * @param in The stream to read from.
+     * @param arena The arena to load into.
+     * @throws IOException If reading fails or the data is not a valid snapshot.
+     */
+    public static void read(InputStream in, RobotArena arena) throws IOException {
+        for (byte b : MAGIC) {
+            if (in.read() != b) {
+                throw new IOException("Not a compressed arena snapshot");
+            }
+        }
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int flags = in.read();
+        if (flags < 0) {
+            throw new IOException("Unexpected end of snapshot");
+        }
+
+        boolean deflated = (flags & FLAG_DEFLATED) != 0;
+        Inflater inf = deflated ? new Inflater() : null;
+        int xmax, ymax, count;
+        int[] xs, ys;        // Decoded robots, only put into the arena once the whole body has been read
+        byte[] dirs;
+        try {
+            Decoder dec = deflated ? new Decoder(new InflaterInputStream(in, inf), true) : new Decoder(in, false);
+            long width = dec.readVarint();
+            long height = dec.readVarint();
+            long robots = dec.readVarint();
+            if (width < 1 || height < 1 || width > Integer.MAX_VALUE || height > Integer.MAX_VALUE
+                    || width * height > RobotArena.MAX_CELLS || robots > width * height || robots > Integer.MAX_VALUE - 8) {
+                throw new IOException("Invalid snapshot header: " + width + " x " + height + " with " + robots + " robots");
+            }
+            xmax = (int) width;
+            ymax = (int) height;
+            count = (int) robots;
+
+            // Grow the arrays as robots arrive, so a header claiming many robots cannot force a huge allocation
+            int capacity = Math.min(count, 4096);
+            xs = new int[capacity];
+            ys = new int[capacity];
+            dirs = new byte[capacity];
+            long[] cells = new long[GROUP];  // Positions of the current group, waiting for their direction byte
+            long cell = 0;
+            for (int start = 0; start < count; start += GROUP) {
+                int size = Math.min(GROUP, count - start);
+                for (int i = 0; i < size; i++) {
+                    long gap = dec.readVarint();  // Gaps of 2^63 and above come back negative
+                    if (gap < 0 || gap >= width * height - cell) {
+                        throw new IOException("Robot position outside the arena");
+                    }
+                    if (gap == 0 && start + i > 0) {
+                        throw new IOException("Two robots on the same cell");
+                    }
+                    cell += gap;
+                    cells[i] = cell;
+                }
+                int packed = dec.readByte();
+                if (start + size > xs.length) {
+                    capacity = (int) Math.min(count, 2L * xs.length);
+                    xs = Arrays.copyOf(xs, capacity);
+                    ys = Arrays.copyOf(ys, capacity);
+                    dirs = Arrays.copyOf(dirs, capacity);
+                }
+                for (int i = 0; i < size; i++) {
+                    xs[start + i] = (int) (cells[i] % xmax);
+                    ys[start + i] = (int) (cells[i] / xmax);
+                    dirs[start + i] = (byte) ((packed >>> (2 * i)) & 3);
+                }
+            }
+        } finally {
+            if (inf != null) {
+                inf.end();  // Frees the native zlib memory; the caller's stream is not closed
+            }
+        }
+
+        arena.reset(xmax, ymax);
+        Direction[] directions = Direction.values();
+        for (int i = 0; i < count; i++) {
+            if (!arena.addRobot(xs[i], ys[i], directions[dirs[i]])) {
+                // Cannot happen: the decoded cells are strictly increasing and inside the arena
+                throw new IllegalStateException("Robot could not be placed at (" + xs[i] + ", " + ys[i] + ")");
+            }
+        }
+    }
+
+    /**
+     * Saves the arena to a file in the compressed format.
+     * @param filename The name (or path) of the file to write to.
+     * @param arena The arena to save.
+     * @param deflate True to also deflate the snapshot body.
+     * @return Returns true if the file was successfully saved, or false if an error occurred.
+     */
+    public static boolean writeFile(String filename, RobotArena arena, boolean deflate) {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(filename)))) {
+            write(arena, out, deflate);
+            System.out.println("Arena saved to " + filename);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Loads a compressed snapshot file into the arena.
+     * @param filename The name (or path) of the file to read from.
+     * @param arena The arena to load into.
+     * @return Returns true if the file was successfully loaded, or false if an error occurred.
+     */
+    public static boolean readFile(String filename, RobotArena arena) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Paths.get(filename)))) {
+            read(in, arena);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Buffers the small writes so that the underlying (possibly deflating) stream receives whole blocks.
+     */
+    private static class Encoder {
+        private final OutputStream out;
+        private final byte[] buf = new byte[8192];
+        private int pos;
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeByte(int b) throws IOException {
+            if (pos == buf.length) {
+                flush();
+            }
+            buf[pos++] = (byte) b;
+        }
+
+        /** Writes an unsigned LEB128 varint: 7 bits per byte, high bit set on all but the last byte. */
+        void writeVarint(long v) throws IOException {
+            while ((v & ~0x7FL) != 0) {
+                writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            writeByte((int) v);
+        }
+
+        void flush() throws IOException {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    /**
+     * Reads back the values written by Encoder, optionally buffering the underlying stream.
+     */
+    private static class Decoder {
+        private final InputStream in;
+        private final byte[] buf;
+        private int pos, limit;
+
+        /**
+         * @param in The stream to read from.
+         * @param readAhead True to read the stream in blocks, false to read no further than the last value returned.
+         */
+        Decoder(InputStream in, boolean readAhead) {
+            this.in = in;
+            this.buf = readAhead ? new byte[8192] : null;
+        }
+
+        int readByte() throws IOException {
+            if (buf == null) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new IOException("Unexpected end of snapshot");
+                }
+                return b;
+            }
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new IOException("Unexpected end of snapshot");
+                }
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+            throw new IOException("Malformed varint in snapshot");
+        }
+    }
+
+    /**
+     * Main method for testing the CompressedSnapshot class.
+     * Saves a random arena in both text and compressed form, reloads the compressed copy and compares them.
+     * @param args Command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        RobotArena arena = new RobotArena(200, 100);
+        for (int i = 0; i < 5000; i++) {
+            arena.addRobot();
+        }
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        write(arena, plain, false);
+        write(arena, deflated, true);
+        System.out.println("Text: " + arena.toString().length() + " bytes, packed: " + plain.size()
+                + " bytes, deflated: " + deflated.size() + " bytes");
+
+        RobotArena copy = new RobotArena(1, 1);
+        read(new ByteArrayInputStream(deflated.toByteArray()), copy);
+        boolean same = copy.getRobots().size() == arena.getRobots().size();
+        for (Robot r : arena.getRobots()) {
+            Robot c = copy.getRobotAt(r.getX(), r.getY());
+            same &= c != null && c.getDirection() == r.getDirection();
+        }
+        System.out.println("Reloaded copy matches: " + same);
+    }
+}
@@ -32,4 +32,32 @@ public enum Direction {
         return values()[(this.ordinal() + 1) % values().length];
         // Using ordinal position to get the next direction, wraps around using modulo
     }
+
+    /**
+     * Determines the previous direction, i.e. the next one in anticlockwise order.
+     * This undoes next(): for example, the previous direction to EAST is NORTH.
+     *
+     * @return The previous direction in clockwise order from the current one.
+     */
+    public Direction previous() {
+        return values()[(this.ordinal() + values().length - 1) % values().length];
+    }
+
+    /**
+     * Gets the change in x-coordinate from one step in this direction.
+     *
+     * @return 1 for EAST, -1 for WEST and 0 otherwise.
+     */
+    public int dx() {
+        return this == EAST ? 1 : this == WEST ? -1 : 0;
+    }
+
+    /**
+     * Gets the change in y-coordinate from one step in this direction (y grows towards the SOUTH).
+     *
+     * @return 1 for SOUTH, -1 for NORTH and 0 otherwise.
+     */
+    public int dy() {
+        return this == SOUTH ? 1 : this == NORTH ? -1 : 0;
+    }
 }
@@ -0,0 +1,89 @@
+package RobotSim;
+
+/**
+ * Records which cells of the arena hold a robot, one bit per cell, so that occupancy checks do not scan every robot.
+ * The bits are kept in pages that forked grids share until one of them writes to the page.
+ * Pages with no occupied cells are not allocated at all.
+ */
+class OccupancyGrid {
+
+    private static final int PAGE_SHIFT = 16;              // 65536 cells (1024 longs) per page
+    private static final int PAGE_CELLS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_CELLS - 1;
+
+    /** Largest number of cells a grid can hold, keeping the page table to about a million entries. */
+    static final long MAX_CELLS = 1L << 36;
+
+    private long[][] pages;     // Bitmap pages, null while a page has never had a robot
+    private Object[] owners;    // The token of the grid that owns each page
+    private Object token = new Object();  // Identifies the pages this grid may write to directly
+
+    /**
+     * Creates an empty grid.
+     * @param cells The number of cells in the arena (width * height).
+     * @throws IllegalArgumentException If there are more than MAX_CELLS cells.
+     */
+    OccupancyGrid(long cells) {
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("Arena of " + cells + " cells is larger than " + MAX_CELLS);
+        }
+        int pageCount = (int) ((Math.max(0, cells) + PAGE_CELLS - 1) >>> PAGE_SHIFT);
+        pages = new long[pageCount][];
+        owners = new Object[pageCount];
+    }
+
+    /**
+     * Checks whether a cell is occupied.
+     * @param cell The cell index (y * width + x).
+     * @return True if a robot is recorded in the cell.
+     */
+    boolean get(long cell) {
+        long[] page = pages[(int) (cell >>> PAGE_SHIFT)];
+        int bit = (int) cell & PAGE_MASK;
+        return page != null && (page[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Marks a cell as occupied.
+     * @param cell The cell index (y * width + x).
+     */
+    void set(long cell) {
+        int bit = (int) cell & PAGE_MASK;
+        ownPage((int) (cell >>> PAGE_SHIFT))[bit >>> 6] |= 1L << bit;
+    }
+
+    /**
+     * Marks a cell as empty.
+     * @param cell The cell index (y * width + x).
+     */
+    void clear(long cell) {
+        int bit = (int) cell & PAGE_MASK;
+        ownPage((int) (cell >>> PAGE_SHIFT))[bit >>> 6] &= ~(1L << bit);
+    }
+
+    /**
+     * Creates a copy of this grid that shares all pages with it.
+     * @return The new grid.
+     */
+    OccupancyGrid fork() {
+        OccupancyGrid child = new OccupancyGrid(0);
+        child.pages = pages.clone();
+        child.owners = owners.clone();
+        token = new Object();  // Both grids now copy a page before writing to it
+        return child;
+    }
+
+    /**
+     * Makes sure this grid owns the given page, allocating or copying it as needed.
+     * @param page The index of the page.
+     * @return The page, now owned by this grid.
+     */
+    private long[] ownPage(int page) {
+        if (owners[page] != token) {
+            long[] shared = pages[page];
+            pages[page] = shared == null ? new long[PAGE_CELLS >>> 6] : shared.clone();
+            owners[page] = token;
+        }
+        return pages[page];
+    }
+}
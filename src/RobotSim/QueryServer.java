@@ -0,0 +1,238 @@
+package RobotSim;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A small read-only HTTP endpoint on localhost for inspecting a running simulation.
+ * The simulation thread calls publish() after each tick; this copies the arena into an ArenaSnapshot and swaps it
+ * into a volatile field. Requests only ever read the latest snapshot, so they take no locks and never wait for
+ * (or hold up) moveAllRobots. Each request runs on its own virtual thread when the Java runtime supports them.
+ *
+ * Endpoints (plain text):
+ *   /stats                          tick, robot count, arena size, tick rate and snapshot age
+ *   /robots?x0=&y0=&x1=&y1=&limit=  "id x y DIRECTION" for each robot inside the rectangle (whole arena by default),
+ *                                   at most MAX_ROWS lines, followed by "truncated" if there were more
+ */
+public class QueryServer {
+
+    /** Default minimum time between snapshots, so copying the arena costs the simulation little. */
+    public static final long DEFAULT_INTERVAL_MILLIS = 200;
+
+    /** Most robots a single /robots request lists, so large replies cannot exhaust memory. */
+    public static final int MAX_ROWS = 10_000;
+
+    private static final int FALLBACK_THREADS = 4;  // Request threads when virtual threads are not available
+
+    private final HttpServer server;           // Serves the endpoints
+    private final ExecutorService executor;    // Runs each request
+    private final long minIntervalNanos;       // Minimum time between snapshots, to limit the copying on the simulation thread
+    private volatile ArenaSnapshot latest;     // Most recently published snapshot, replaced whole each time
+    private long lastPublishNanos;             // When the latest snapshot was taken (simulation thread only)
+
+    /**
+     * Creates and starts a query server bound to the loopback address.
+     * @param port The port to listen on, or 0 to pick a free one.
+     * @param minIntervalMillis The minimum time between published snapshots; 0 publishes on every call.
+     * @throws IOException If the port cannot be opened.
+     */
+    public QueryServer(int port, long minIntervalMillis) throws IOException {
+        this.minIntervalNanos = minIntervalMillis * 1_000_000;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/robots", this::handleRobots);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Publishes a new snapshot of the arena for queries to read, unless one was published less than the minimum
+     * interval ago. Must be called on the thread that moves the arena, between ticks.
+     * @param arena The arena to publish.
+     */
+    public void publish(RobotArena arena) {
+        long now = System.nanoTime();
+        if (latest != null && now - lastPublishNanos < minIntervalNanos) {
+            return;  // Too soon, readers keep the previous snapshot
+        }
+        publishNow(arena);
+    }
+
+    /**
+     * Publishes a new snapshot of the arena straight away, ignoring the minimum interval.
+     * Meant for occasional changes, such as the end of a console command, that queries should see at once.
+     * Must be called on the thread that moves the arena, between ticks.
+     * @param arena The arena to publish.
+     */
+    public void publishNow(RobotArena arena) {
+        latest = new ArenaSnapshot(arena, latest);
+        lastPublishNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     * @return The port number.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, waiting at most a second for requests in progress to finish.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Answers /stats with a summary of the latest snapshot.
+     * @param exchange The HTTP request and response.
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        if (!exactPath(exchange, "/stats")) {
+            return;
+        }
+        ArenaSnapshot snap = latest;  // Read once, so the whole reply comes from the same snapshot
+        if (snap == null) {
+            send(exchange, 503, "No snapshot published yet\n");
+            return;
+        }
+        String body = "tick " + snap.getTick() + "\n"
+                + "robots " + snap.getRobotCount() + "\n"
+                + "arena " + snap.getXMax() + " " + snap.getYMax() + "\n"
+                + String.format("ticksPerSecond %.2f%n", snap.getTicksPerSecond())
+                + "snapshotAgeMillis " + snap.getAgeMillis() + "\n";
+        send(exchange, 200, body);
+    }
+
+    /**
+     * Answers /robots with the robots of the latest snapshot inside the requested rectangle.
+     * @param exchange The HTTP request and response.
+     */
+    private void handleRobots(HttpExchange exchange) throws IOException {
+        if (!exactPath(exchange, "/robots")) {
+            return;
+        }
+        ArenaSnapshot snap = latest;
+        if (snap == null) {
+            send(exchange, 503, "No snapshot published yet\n");
+            return;
+        }
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        int x0, y0, x1, y1, limit;
+        try {
+            x0 = intParam(params, "x0", 0);
+            y0 = intParam(params, "y0", 0);
+            x1 = intParam(params, "x1", snap.getXMax() - 1);
+            y1 = intParam(params, "y1", snap.getYMax() - 1);
+            limit = Math.min(Math.max(intParam(params, "limit", MAX_ROWS), 0), MAX_ROWS);
+        } catch (NumberFormatException e) {
+            send(exchange, 400, "Region bounds must be integers: " + e.getMessage() + "\n");
+            return;
+        }
+
+        // Stream the reply (chunked) instead of building it in memory first
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            out.write("tick " + snap.getTick() + "\n");
+            if (!snap.robotsInRegion(x0, y0, x1, y1, limit, out)) {
+                out.write("truncated after " + limit + " robots, narrow the region\n");
+            }
+        }
+    }
+
+    /**
+     * Checks that the request is for exactly the given path, answering 404 if not.
+     * Contexts match by prefix, so without this /statsXYZ would be answered as /stats.
+     * @param exchange The HTTP request and response.
+     * @param path The path the handler serves.
+     * @return True if the path matches and the handler should answer.
+     */
+    private static boolean exactPath(HttpExchange exchange, String path) throws IOException {
+        if (exchange.getRequestURI().getPath().equals(path)) {
+            return true;
+        }
+        send(exchange, 404, "Not found\n");
+        return false;
+    }
+
+    /**
+     * Splits a URL query string into its name=value pairs.
+     * @param query The raw query string, or null.
+     * @return The parameters by name.
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : new StringSplitter(query, "&").getStrings()) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Gets an integer query parameter.
+     * @param params The query parameters.
+     * @param name The parameter name.
+     * @param defaultValue The value to use if the parameter is missing.
+     * @return The parameter's value.
+     */
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Sends a plain text response and closes the exchange.
+     * @param exchange The HTTP request and response.
+     * @param status The HTTP status code.
+     * @param body The response text.
+     */
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Creates the executor for requests: a virtual thread per request where the runtime has virtual threads
+     * (Java 21 and later), otherwise a small fixed pool of daemon threads so the server never keeps the program running
+     * and a burst of requests cannot start an unbounded number of threads; extra requests wait in the pool's queue.
+     * @return The executor.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, task -> {
+                Thread t = new Thread(task, "query-server");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -25,6 +25,18 @@ public class Robot {
         this.robotId = robotCount++;  // Assigns a unique ID to each robot upon creation
     }
 
+    /**
+     * Constructs a copy of another robot, keeping its ID.
+     * Used when a forked arena needs its own copy of a shared robot.
+     * @param other The robot to copy.
+     */
+    Robot(Robot other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.direction = other.direction;
+        this.robotId = other.robotId;
+    }
+
     /**
      * Provides a string representation of the robot's current state.
      * Includes the robot's ID, position, and direction.
@@ -82,8 +94,10 @@ public class Robot {
      * Attempts to move the robot in its current direction.
      * If the robot encounters a boundary or another robot, it changes direction.
      * @param arena The RobotArena in which the robot moves, used to check valid positions.
+     * Only the arena calls this, on a robot it owns, so that robots shared with forks are never changed.
+     * @return True if the robot moved, false if it turned instead.
      */
-    public void tryToMove(RobotArena arena) {
+    boolean tryToMove(RobotArena arena) {
         int newX = x;
         int newY = y;
 
@@ -97,10 +111,67 @@ public class Robot {
 
         // Checks if the new position is valid (no collision and within arena bounds)
         if (arena.canMoveHere(newX, newY)) {
+            arena.robotMoved(x, y, newX, newY);  // Lets the arena update its record of occupied cells
             x = newX;  // Updates the robot's position if valid
             y = newY;
+            return true;
         } else {
             direction = direction.next();  // Changes direction if movement is blocked
+            return false;
+        }
+    }
+
+    /**
+     * Finishes a move whose candidate position has already been worked out, e.g. by VectorStepKernel.
+     * Behaves exactly like the end of tryToMove: the robot moves if the cell is inside the arena and free, otherwise it turns.
+     * @param arena The RobotArena in which the robot moves, used to check the cell is free.
+     * @param inBounds Whether the candidate position lies inside the arena.
+     * @param newX The candidate x-coordinate.
+     * @param newY The candidate y-coordinate.
+     * @return True if the robot moved, false if it turned instead.
+     */
+    boolean completeMove(RobotArena arena, boolean inBounds, int newX, int newY) {
+        if (inBounds && !arena.isOccupied(newX, newY)) {
+            arena.robotMoved(x, y, newX, newY);
+            x = newX;
+            y = newY;
+            return true;
+        }
+        direction = direction.next();
+        return false;
+    }
+
+    /**
+     * Undoes one tick of this robot's movement, as recorded in the arena's history.
+     * @param arena The RobotArena the robot is in, told about the change of cell.
+     * @param moved True if the robot moved in that tick, false if it turned.
+     */
+    void stepBack(RobotArena arena, boolean moved) {
+        if (moved) {
+            int oldX = x - direction.dx();  // Direction is unchanged by a move, so step back against it
+            int oldY = y - direction.dy();
+            arena.robotMoved(x, y, oldX, oldY);
+            x = oldX;
+            y = oldY;
+        } else {
+            direction = direction.previous();  // Turn back anticlockwise
+        }
+    }
+
+    /**
+     * Replays one tick of this robot's movement, as recorded in the arena's history.
+     * @param arena The RobotArena the robot is in, told about the change of cell.
+     * @param moved True if the robot moved in that tick, false if it turned.
+     */
+    void stepForward(RobotArena arena, boolean moved) {
+        if (moved) {
+            int newX = x + direction.dx();
+            int newY = y + direction.dy();
+            arena.robotMoved(x, y, newX, newY);
+            x = newX;
+            y = newY;
+        } else {
+            direction = direction.next();
         }
     }
 
@@ -1,6 +1,7 @@
 package RobotSim;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -10,9 +11,23 @@ import java.util.Random;
  */
 public class RobotArena {
 
+    /** Default memory budget for the tick history used by rewind and step forward. */
+    public static final long DEFAULT_HISTORY_BYTES = 4 << 20;
+
+    /** Largest arena (width * height) that can be created or loaded. */
+    public static final long MAX_CELLS = OccupancyGrid.MAX_CELLS;
+
+    /** Whether the jdk.incubator.vector module was resolved at startup, so VectorStepKernel can be loaded. */
+    private static final boolean VECTOR_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
     private int xmax, ymax;                   // Maximum dimensions of the arena
-    private ArrayList<Robot> robots;          // Stores all robots within the arena
+    private RobotList robots;                 // Stores all robots within the arena, in pages shared with forks
+    private OccupancyGrid grid;               // One bit per cell marking where robots are
     private Random randomGenerator;           // Random generator for placing robots at random positions
+    private TickHistory history;              // Recent ticks, for rewinding and stepping forward
+    private long tick;                        // Number of ticks the arena is currently at
+    private VectorStepKernel vectorKernel;    // Vector API stepping, or null to use Robot.tryToMove
   
     /**
      * Constructs a new RobotArena with specified width and height.
@@ -22,8 +37,39 @@ public class RobotArena {
     public RobotArena(int xmax, int ymax) {
         this.xmax = xmax;
         this.ymax = ymax;
-        robots = new ArrayList<>();           // Initializes the list of robots
+        robots = new RobotList();             // Initializes the list of robots
+        grid = new OccupancyGrid((long) xmax * ymax);  // Initializes the empty occupancy grid
         randomGenerator = new Random();       // Sets up the random generator
+        history = new TickHistory(DEFAULT_HISTORY_BYTES);  // Sets up the empty tick history
+    }
+
+    /**
+     * Constructs a fork of another arena, sharing its robots and grid until either arena changes them.
+     * @param parent The arena being forked.
+     */
+    private RobotArena(RobotArena parent) {
+        this.xmax = parent.xmax;
+        this.ymax = parent.ymax;
+        robots = parent.robots.fork();        // Shares the robot pages copy-on-write
+        grid = parent.grid.fork();            // Shares the grid pages copy-on-write
+        randomGenerator = new Random();
+        history = new TickHistory(parent.history.getBudgetBytes());  // A fork starts with no history of its own
+        tick = parent.tick;
+        if (parent.vectorKernel != null) {
+            vectorKernel = new VectorStepKernel();  // Same stepping as the parent, with its own scratch arrays
+        }
+    }
+
+    /**
+     * Creates a copy of this arena for trying out a different future, e.g. adding robots in other places.
+     * The copy shares its robots and grid with this arena in pages; a page is only copied when one of
+     * the arenas first changes it, so forking is quick and memory grows only as the arenas diverge.
+     * Copying a page replaces its Robot objects, so Robot references taken from getRobots() before the fork
+     * stop following either arena once it moves; get them again from getRobots() afterwards.
+     * @return The new arena, in the same state as this one.
+     */
+    public RobotArena fork() {
+        return new RobotArena(this);
     }
 
     /**
@@ -44,10 +90,12 @@ public class RobotArena {
 
     /**
      * Getter for the list of robots currently in the arena.
-     * @return An ArrayList of robots in the arena.
+     * The robots may be shared with forked arenas, so the list cannot be changed; use addRobot to add robots.
+     * A Robot taken from the list reflects the arena only until the arena is next forked and moved.
+     * @return An unmodifiable List of robots in the arena.
      */
-    public ArrayList<Robot> getRobots() {
-        return robots;
+    public List<Robot> getRobots() {
+        return Collections.unmodifiableList(robots);
     }
 
     /**
@@ -59,8 +107,43 @@ public class RobotArena {
         do {
             randomX = randomGenerator.nextInt(xmax);  // Random x-coordinate within bounds
             randomY = randomGenerator.nextInt(ymax);  // Random y-coordinate within bounds
-        } while (getRobotAt(randomX, randomY) != null);  // Ensures the position is unique
-        robots.add(new Robot(randomX, randomY, randomDirection));  // Adds the robot to the arena
+        } while (isOccupied(randomX, randomY));  // Ensures the position is unique
+        addRobot(randomX, randomY, randomDirection);  // Adds the robot to the arena
+    }
+
+    /**
+     * Adds a new robot at a given position and direction.
+     * Used when restoring a saved arena. The occupancy grid holds one robot per cell, so a robot is not added
+     * to a cell inside the arena that already has one.
+     * @param x The x-coordinate of the new robot.
+     * @param y The y-coordinate of the new robot.
+     * @param direction The direction the new robot is facing.
+     * @return True if the robot was added, false if the cell was already occupied.
+     */
+    public boolean addRobot(int x, int y, Direction direction) {
+        if (inBounds(x, y) && isOccupied(x, y)) {
+            return false;  // Two robots on one cell would share a grid bit
+        }
+        history.clear();  // Recorded ticks no longer match the list of robots
+        robots.add(new Robot(x, y, direction));
+        if (inBounds(x, y)) {
+            grid.set(cell(x, y));  // Robots outside the arena can never block a move, so only mark cells inside it
+        }
+        return true;
+    }
+
+    /**
+     * Removes all robots and changes the arena dimensions, ready for a saved state to be loaded.
+     * @param xmax The new maximum x-coordinate (width) of the arena.
+     * @param ymax The new maximum y-coordinate (height) of the arena.
+     */
+    void reset(int xmax, int ymax) {
+        robots.clear();
+        this.xmax = xmax;
+        this.ymax = ymax;
+        grid = new OccupancyGrid((long) xmax * ymax);
+        history.clear();
+        tick = 0;
     }
 
     /**
@@ -70,6 +153,9 @@ public class RobotArena {
      * @return The robot at (x, y) if one exists, null otherwise.
      */
     public Robot getRobotAt(int x, int y) {
+        if (inBounds(x, y) && !grid.get(cell(x, y))) {
+            return null;  // The grid shows the cell is empty, no need to search
+        }
         for (Robot r : robots) {
             if (r.isHere(x, y)) {
                 return r;  // Returns the robot if found at (x, y)
@@ -85,19 +171,167 @@ public class RobotArena {
      * @return True if the position is valid and unoccupied, false otherwise.
      */
     public boolean canMoveHere(int x, int y) {
-        if (x < 0 || x >= xmax || y < 0 || y >= ymax) {
+        if (!inBounds(x, y)) {
             return false;  // Out of bounds
         }
-        return getRobotAt(x, y) == null;  // Checks if the position is occupied
+        return !grid.get(cell(x, y));  // Checks if the position is occupied
+    }
+
+    /**
+     * Records that a robot has moved from one cell to another, keeping the occupancy grid up to date.
+     * Called by Robot.tryToMove once the move has been allowed.
+     * @param oldX The x-coordinate the robot is leaving.
+     * @param oldY The y-coordinate the robot is leaving.
+     * @param newX The x-coordinate the robot is moving to.
+     * @param newY The y-coordinate the robot is moving to.
+     */
+    void robotMoved(int oldX, int oldY, int newX, int newY) {
+        if (inBounds(oldX, oldY)) {
+            grid.clear(cell(oldX, oldY));
+        }
+        if (inBounds(newX, newY)) {
+            grid.set(cell(newX, newY));  // Only a rewind can take a robot back outside the arena
+        }
     }
 
     /**
      * Moves all robots in the arena by attempting to move each robot in its current direction.
+     * Whether each robot moved or turned is recorded in the tick history.
      */
     public void moveAllRobots() {
-        for (Robot r : robots) {
-            r.tryToMove(this);  // Each robot tries to move based on its logic and arena constraints
+        boolean recording = history.beginTick(robots.size());
+        if (vectorKernel != null) {
+            vectorKernel.moveAll(this, robots, recording ? history : null);
+            tick++;
+            return;
+        }
+        for (int i = 0; i < robots.size(); i++) {
+            // Each robot tries to move based on its logic and arena constraints
+            if (robots.getForWrite(i).tryToMove(this) && recording) {
+                history.setMoved(i);
+            }
         }
+        tick++;
+    }
+
+    /**
+     * Checks whether the Vector API stepping can be used, i.e. the program was started with
+     * --add-modules jdk.incubator.vector.
+     * @return True if setVectorStepping(true) will take effect.
+     */
+    public static boolean isVectorSteppingAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    /**
+     * Turns the Vector API stepping on or off. The robots move exactly as before either way.
+     * If the jdk.incubator.vector module is not available the arena keeps using the scalar stepping.
+     * @param enabled True to use the vector stepping when it is available.
+     * @return True if the vector stepping is now in use.
+     */
+    public boolean setVectorStepping(boolean enabled) {
+        vectorKernel = enabled && VECTOR_AVAILABLE ? new VectorStepKernel() : null;
+        return vectorKernel != null;
+    }
+
+    /**
+     * Rewinds the arena by undoing the most recent ticks recorded in the history.
+     * Robots are undone in reverse order so each one returns to a cell that is free again.
+     * @param ticks The number of ticks to go back.
+     * @return The number of ticks actually rewound, limited by the history available.
+     */
+    public int rewind(int ticks) {
+        int done = 0;
+        int offset;
+        while (done < ticks && (offset = history.rewind()) >= 0) {
+            for (int i = robots.size() - 1; i >= 0; i--) {
+                robots.getForWrite(i).stepBack(this, history.moved(offset, i));
+            }
+            tick--;
+            done++;
+        }
+        return done;
+    }
+
+    /**
+     * Steps the arena forward again over ticks that were rewound.
+     * @param ticks The number of ticks to go forward.
+     * @return The number of ticks actually replayed, limited by how many were rewound.
+     */
+    public int stepForward(int ticks) {
+        int done = 0;
+        int offset;
+        while (done < ticks && (offset = history.stepForward()) >= 0) {
+            for (int i = 0; i < robots.size(); i++) {
+                robots.getForWrite(i).stepForward(this, history.moved(offset, i));
+            }
+            tick++;
+            done++;
+        }
+        return done;
+    }
+
+    /**
+     * Gets the number of ticks that can currently be rewound.
+     * @return The number of ticks held in the history.
+     */
+    public int getRewindableTicks() {
+        return history.getUndoable();
+    }
+
+    /**
+     * Gets the number of rewound ticks that can be stepped forward again.
+     * @return The number of ticks.
+     */
+    public int getForwardTicks() {
+        return history.getRedoable();
+    }
+
+    /**
+     * Sets the memory budget for the tick history, which caps how far back the arena can be rewound.
+     * Changing the budget forgets the ticks recorded so far.
+     * @param bytes The maximum number of bytes the history may use; 0 turns the history off.
+     */
+    public void setHistoryBudget(long bytes) {
+        history = new TickHistory(bytes);
+    }
+
+    /**
+     * Gets the number of ticks the arena has been moved since it was created or loaded.
+     * @return The current tick.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Checks whether a position lies inside the arena.
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     * @return True if the position is inside the arena.
+     */
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < xmax && y >= 0 && y < ymax;
+    }
+
+    /**
+     * Checks whether a cell inside the arena holds a robot.
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     * @return True if a robot is in the cell.
+     */
+    boolean isOccupied(int x, int y) {
+        return grid.get(cell(x, y));
+    }
+
+    /**
+     * Gets the grid index of a cell inside the arena.
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return The cell index, y * width + x.
+     */
+    private long cell(int x, int y) {
+        return (long) y * xmax + x;
     }
 
     /**
@@ -132,16 +366,18 @@ public class RobotArena {
      * @param data The string containing the saved arena state.
      */
     public void loadFromString(String data) {
-        robots.clear();  // Clears existing robots to load new state
         String[] lines = data.split("\n");
 
         // Parsing arena dimensions from the first line
         StringSplitter splitter = new StringSplitter(lines[0], " ");
         int[] dimensions = splitter.getIntegers();
-        if (dimensions.length == 2) {
-            xmax = dimensions[0];
-            ymax = dimensions[1];
+        if (dimensions.length == 2 && (long) dimensions[0] * dimensions[1] > MAX_CELLS) {
+            System.err.println("Arena dimensions " + dimensions[0] + " x " + dimensions[1] + " are too large.");
+            return;
+        } else if (dimensions.length == 2) {
+            reset(dimensions[0], dimensions[1]);  // Clears existing robots to load new state
         } else {
+            reset(xmax, ymax);  // Clears existing robots even though nothing can be loaded
             System.err.println("Error parsing arena dimensions. Ensure the file format is correct.");
             return;
         }
@@ -170,7 +406,9 @@ public class RobotArena {
                         continue;  // Skips invalid entries
                     }
 
-                    robots.add(new Robot(x, y, direction));  // Adds each loaded robot
+                    if (!addRobot(x, y, direction)) {  // Adds each loaded robot
+                        System.err.println("Duplicate robot position at line " + (i + 1) + ": " + x + " " + y);
+                    }
                 } catch (NumberFormatException e) {
                     System.err.println("Error parsing robot coordinates at line " + (i + 1) + ": " + e.getMessage());
                 }
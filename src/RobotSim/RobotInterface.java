@@ -1,5 +1,6 @@
 package RobotSim;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 /**
@@ -9,9 +10,12 @@ import java.util.Scanner;
  */
 public class RobotInterface {
 
+    private static final String COMPRESSED_SUFFIX = ".rsz"; // Files saved with this suffix use CompressedSnapshot
+
     private Scanner s;             // Scanner for reading user input
     private RobotArena myArena;    // The RobotArena instance that contains and manages the robots
     private ConsoleCanvas canvas;  // ConsoleCanvas for displaying the arena
+    private QueryServer queryServer; // Local query endpoint, or null when it is not running
 
     /**
      * Constructor for RobotInterface.
@@ -25,7 +29,7 @@ public class RobotInterface {
 
         // Main loop for interacting with the user
         do {
-            System.out.print("Enter (A)dd Robot, get (I)nformation, (D)isplay arena, (M)ove robots, (S)imulate, (N)ew arena, (L)oad, (W)rite or e(X)it > ");
+            System.out.print("Enter (A)dd Robot, get (I)nformation, (D)isplay arena, (M)ove robots, (S)imulate, (R)ewind, step (F)orward, (N)ew arena, (L)oad, (W)rite, (Q)uery server or e(X)it > ");
             ch = s.next().charAt(0); // Read the first character of user input
             s.nextLine(); // Clear the input buffer
 
@@ -53,6 +57,14 @@ public class RobotInterface {
                 case 's':
                     simulate();  // Simulate robot movements 10 times with delays
                     break;
+                case 'R': // Step the robots back through the history if 'R' or 'r' is entered
+                case 'r':
+                    rewind();
+                    break;
+                case 'F': // Replay rewound moves if 'F' or 'f' is entered
+                case 'f':
+                    stepForward();
+                    break;
                 case 'N': // Reset the arena if 'N' or 'n' is entered
                 case 'n':
                     newArena();
@@ -66,13 +78,23 @@ public class RobotInterface {
                     loadArena();
                     printRobotInfo(); // Display updated robot information after loading
                     break;
+                case 'Q': // Start or stop the local query server if 'Q' or 'q' is entered
+                case 'q':
+                    toggleQueryServer();
+                    break;
                 case 'x': // Exit the program if 'X' or 'x' is entered
                 case 'X':
                     ch = 'X'; // Set ch to 'X' to exit the loop
                     break;
             }
+            if (queryServer != null) {
+                queryServer.publishNow(myArena); // Let queries see the result of the command
+            }
         } while (ch != 'X'); // Continue the loop until 'X' is entered
 
+        if (queryServer != null) {
+            queryServer.stop(); // Stop answering queries before exiting
+        }
         s.close(); // Close the scanner
     }
 
@@ -106,6 +128,7 @@ public class RobotInterface {
         for (int i = 0; i < 10; i++) {
             printRobotInfo();       // Print robot positions before the movement
             myArena.moveAllRobots(); // Move all robots
+            publishSnapshot();       // Let queries follow the simulation, at most every DEFAULT_INTERVAL_MILLIS
 
             displayArena();         // Display the updated arena after moving robots
             printRobotInfo();       // Print robot information after the movement
@@ -118,6 +141,88 @@ public class RobotInterface {
         }
     }
 
+    /**
+     * Starts the local query server on a port entered by the user, or stops it if it is already running.
+     */
+    private void toggleQueryServer() {
+        if (queryServer != null) {
+            queryServer.stop();
+            queryServer = null;
+            System.out.println("Query server stopped.");
+            return;
+        }
+        int port;
+        while (true) {
+            System.out.print("Enter port for the query server (0 for any free port): ");
+            if (s.hasNextInt()) {
+                port = s.nextInt();
+                s.nextLine(); // Clear the input buffer
+                break;
+            } else {
+                System.out.println("Invalid input. Please enter an integer value for the port.");
+                s.next(); // Clear the invalid input
+            }
+        }
+        try {
+            queryServer = new QueryServer(port, QueryServer.DEFAULT_INTERVAL_MILLIS);
+            System.out.println("Query server listening on http://localhost:" + queryServer.getPort() + "/stats and /robots");
+        } catch (IOException e) {
+            System.out.println("Failed to start query server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes the current state of the arena to the query server, if it is running and the last snapshot is old enough.
+     */
+    private void publishSnapshot() {
+        if (queryServer != null) {
+            queryServer.publish(myArena);
+        }
+    }
+
+    /**
+     * Rewinds the arena by a number of ticks entered by the user, then displays it.
+     * How far back it can go is limited by the arena's tick history.
+     */
+    private void rewind() {
+        int ticks = readTicks("rewind", myArena.getRewindableTicks());
+        int done = myArena.rewind(ticks);
+        System.out.println("Rewound " + done + " tick(s), now at tick " + myArena.getTick());
+        displayArena();
+        printRobotInfo();
+    }
+
+    /**
+     * Steps the arena forward again over ticks that were rewound, then displays it.
+     */
+    private void stepForward() {
+        int ticks = readTicks("step forward", myArena.getForwardTicks());
+        int done = myArena.stepForward(ticks);
+        System.out.println("Stepped forward " + done + " tick(s), now at tick " + myArena.getTick());
+        displayArena();
+        printRobotInfo();
+    }
+
+    /**
+     * Asks the user how many ticks to rewind or step forward.
+     * @param action The action being performed, shown in the prompt.
+     * @param available The number of ticks available for the action.
+     * @return The number of ticks entered by the user.
+     */
+    private int readTicks(String action, int available) {
+        while (true) {
+            System.out.print("How many ticks to " + action + "? (" + available + " available): ");
+            if (s.hasNextInt()) {
+                int ticks = s.nextInt();
+                s.nextLine(); // Clear the input buffer
+                return ticks;
+            } else {
+                System.out.println("Invalid input. Please enter an integer value.");
+                s.next(); // Clear the invalid input
+            }
+        }
+    }
+
     /**
      * Resets the current arena or creates a new one with specified dimensions.
      * If the user confirms, they can input new dimensions; otherwise, the default or current dimensions are used.
@@ -154,6 +259,10 @@ public class RobotInterface {
                 }
             }
 
+            if ((long) newWidth * newHeight > RobotArena.MAX_CELLS) {
+                System.out.println("Arena is too large, at most " + RobotArena.MAX_CELLS + " cells are allowed.");
+                return;
+            }
             myArena = new RobotArena(newWidth, newHeight);
             canvas = new ConsoleCanvas(newWidth, newHeight, "32019071"); // Reinitialize canvas with new dimensions
         } else {
@@ -166,12 +275,18 @@ public class RobotInterface {
     /**
      * Saves the current state of the arena to a text file.
      * Prompts the user to enter a filename and then writes the arena data to that file.
+     * Filenames ending in .rsz are written as a compressed snapshot instead of text.
      */
     private void saveArena() {
         System.out.print("Enter filename to save the arena: ");
         String filename = s.nextLine(); // Get filename from user
-        String arenaData = myArena.toString();
-        boolean isSaved = TextFile.writeFile(filename, arenaData); // Updated method to return success
+        boolean isSaved;
+        if (filename.endsWith(COMPRESSED_SUFFIX)) {
+            isSaved = CompressedSnapshot.writeFile(filename, myArena, true); // Compressed binary snapshot
+        } else {
+            String arenaData = myArena.toString();
+            isSaved = TextFile.writeFile(filename, arenaData); // Updated method to return success
+        }
         if (isSaved) {
             System.out.println("Successfully saved arena to '" + filename + "'");
         } else {
@@ -182,13 +297,22 @@ public class RobotInterface {
     /**
      * Loads the arena state from a text file.
      * Prompts the user for a filename and loads the arena's state if the file exists.
+     * Filenames ending in .rsz are read as a compressed snapshot.
      */
     private void loadArena() {
         System.out.print("Enter filename to load the arena: ");
         String filename = s.nextLine(); // Get filename from user
-        String arenaData = TextFile.readFile(filename);
-        if (arenaData != null) {
-            myArena.loadFromString(arenaData);
+        boolean isLoaded;
+        if (filename.endsWith(COMPRESSED_SUFFIX)) {
+            isLoaded = CompressedSnapshot.readFile(filename, myArena);
+        } else {
+            String arenaData = TextFile.readFile(filename);
+            if (arenaData != null) {
+                myArena.loadFromString(arenaData);
+            }
+            isLoaded = arenaData != null;
+        }
+        if (isLoaded) {
             System.out.println("Successfully loaded arena from '" + filename + "'");
         } else {
             System.out.println("Failed to load arena from '" + filename + "'");
@@ -0,0 +1,132 @@
+package RobotSim;
+
+import java.util.AbstractList;
+
+/**
+ * Stores the robots of an arena in fixed-size pages so that forked arenas can share them.
+ * A page is only copied (together with the robots on it) the first time a list writes to it after a fork,
+ * so the memory used by a fork grows with the number of pages it changes rather than with the number of robots.
+ * Robots read through get() may be shared with other forks and must not be changed; use getForWrite() instead.
+ */
+class RobotList extends AbstractList<Robot> {
+
+    private static final int PAGE_SHIFT = 10;               // 1024 robots per page
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private Robot[][] pages = new Robot[0][];  // Pages of robots, possibly shared with other forks
+    private Object[] owners = new Object[0];   // The token of the list that owns each page
+    private Object token = new Object();       // Identifies the pages this list may write to directly
+    private int size;                          // Number of robots stored
+
+    /**
+     * Gets the robot at the given index for reading only.
+     * @param index The position of the robot in the list.
+     * @return The robot, which may be shared with forks of this list.
+     */
+    @Override
+    public Robot get(int index) {
+        checkIndex(index);
+        return pages[index >>> PAGE_SHIFT][index & PAGE_MASK];
+    }
+
+    /**
+     * Gets the robot at the given index so that it can be changed, copying its page first if it is shared.
+     * @param index The position of the robot in the list.
+     * @return A robot owned only by this list.
+     */
+    Robot getForWrite(int index) {
+        checkIndex(index);
+        return ownPage(index >>> PAGE_SHIFT)[index & PAGE_MASK];
+    }
+
+    /**
+     * Appends a robot to the end of the list.
+     * @param robot The robot to add.
+     * @return Always true.
+     */
+    @Override
+    public boolean add(Robot robot) {
+        int page = size >>> PAGE_SHIFT;
+        if (page == pages.length) {
+            // Grow the page table by half again, the new page is owned by this list
+            int capacity = Math.max(4, pages.length + (pages.length >> 1));
+            Robot[][] newPages = new Robot[capacity][];
+            Object[] newOwners = new Object[capacity];
+            System.arraycopy(pages, 0, newPages, 0, pages.length);
+            System.arraycopy(owners, 0, newOwners, 0, owners.length);
+            pages = newPages;
+            owners = newOwners;
+        }
+        if (pages[page] == null) {
+            pages[page] = new Robot[PAGE_SIZE];
+            owners[page] = token;
+        }
+        ownPage(page)[size & PAGE_MASK] = robot;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes all robots. Pages shared with forks are left untouched.
+     */
+    @Override
+    public void clear() {
+        pages = new Robot[0][];
+        owners = new Object[0];
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Gets the number of robots in the list.
+     * @return The number of robots.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a copy of this list that shares all pages with it.
+     * Only the page table is copied; both lists copy a page the first time they write to it.
+     * @return The new list.
+     */
+    RobotList fork() {
+        RobotList child = new RobotList();
+        child.pages = pages.clone();
+        child.owners = owners.clone();
+        child.size = size;
+        token = new Object();  // This list no longer owns any page outright either
+        return child;
+    }
+
+    /**
+     * Makes sure this list owns the given page, copying the page and its robots if it is shared.
+     * @param page The index of the page.
+     * @return The page, now owned by this list.
+     */
+    private Robot[] ownPage(int page) {
+        if (owners[page] != token) {
+            Robot[] shared = pages[page];
+            Robot[] copy = new Robot[PAGE_SIZE];
+            for (int i = 0; i < PAGE_SIZE && shared[i] != null; i++) {
+                copy[i] = new Robot(shared[i]);
+            }
+            pages[page] = copy;
+            owners[page] = token;
+        }
+        return pages[page];
+    }
+
+    /**
+     * Checks that the index refers to a stored robot.
+     * @param index The index to check.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
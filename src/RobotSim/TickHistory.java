@@ -0,0 +1,150 @@
+package RobotSim;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a bounded record of recent ticks so that the arena can be rewound and stepped forward again.
+ * In a tick every robot either moves one cell in its direction or turns clockwise, so one bit per robot
+ * (moved or turned) is enough to undo or redo the tick exactly. The bits are kept in a ring of long words
+ * whose size is capped by a memory budget; once full, the oldest tick is overwritten.
+ * The record only makes sense while the robot list stays the same, so it is cleared whenever robots are added or loaded.
+ */
+class TickHistory {
+
+    private final long budgetBytes;  // Maximum memory the ring may use
+    private long[] bits = new long[0];  // Ring of ticks, wordsPerTick words each, grown up to the budget
+    private int robotCount = -1;     // Robots per recorded tick, -1 before the first tick
+    private int wordsPerTick;        // Words needed for one bit per robot
+    private int capacity;            // Maximum number of ticks the budget allows
+    private int start;               // Slot of the oldest recorded tick
+    private int undoable;            // Ticks that can be rewound
+    private int redoable;            // Rewound ticks that can be stepped forward again
+    private int current;             // Word offset of the tick being recorded
+
+    /**
+     * Creates an empty history.
+     * @param budgetBytes The maximum number of bytes the recorded ticks may use.
+     */
+    TickHistory(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Gets the memory budget of this history.
+     * @return The budget in bytes.
+     */
+    long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Starts recording a new tick, dropping any ticks that were rewound and overwriting the oldest tick if full.
+     * Every robot starts out recorded as having turned.
+     * @param robots The number of robots that will move in this tick.
+     * @return True if the tick is being recorded, false if the budget is too small for even one tick.
+     */
+    boolean beginTick(int robots) {
+        if (robots != robotCount) {
+            robotCount = robots;
+            wordsPerTick = Math.max(1, (robots + 63) >>> 6);
+            capacity = (int) Math.min(Integer.MAX_VALUE / wordsPerTick, budgetBytes / 8 / wordsPerTick);
+            bits = new long[0];
+            clear();
+        }
+        if (capacity == 0) {
+            return false;
+        }
+        redoable = 0;
+        if (undoable == capacity) {
+            start = (start + 1) % capacity;  // Ring is full, forget the oldest tick
+        } else {
+            undoable++;
+            if (undoable * wordsPerTick > bits.length) {
+                // The ring has not wrapped yet (start is 0), so growing keeps every slot in place
+                int ticks = (int) Math.min(capacity, Math.max(16L, 2L * bits.length / wordsPerTick));
+                bits = Arrays.copyOf(bits, ticks * wordsPerTick);
+            }
+        }
+        current = slot(undoable - 1);
+        Arrays.fill(bits, current, current + wordsPerTick, 0L);
+        return true;
+    }
+
+    /**
+     * Records that a robot moved (rather than turned) in the tick being recorded.
+     * @param index The robot's position in the arena's robot list.
+     */
+    void setMoved(int index) {
+        bits[current + (index >>> 6)] |= 1L << index;
+    }
+
+    /**
+     * Steps the history back over the most recent tick.
+     * @return The word offset of that tick, or -1 if there is nothing to rewind.
+     */
+    int rewind() {
+        if (undoable == 0) {
+            return -1;
+        }
+        undoable--;
+        redoable++;
+        return slot(undoable);
+    }
+
+    /**
+     * Steps the history forward over the next rewound tick.
+     * @return The word offset of that tick, or -1 if there is nothing to step forward to.
+     */
+    int stepForward() {
+        if (redoable == 0) {
+            return -1;
+        }
+        redoable--;
+        undoable++;
+        return slot(undoable - 1);
+    }
+
+    /**
+     * Checks whether a robot moved in a recorded tick.
+     * @param offset The word offset returned by rewind() or stepForward().
+     * @param index The robot's position in the arena's robot list.
+     * @return True if the robot moved, false if it turned.
+     */
+    boolean moved(int offset, int index) {
+        return (bits[offset + (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    /**
+     * Gets the number of ticks that can currently be rewound.
+     * @return The number of ticks.
+     */
+    int getUndoable() {
+        return undoable;
+    }
+
+    /**
+     * Gets the number of rewound ticks that can be stepped forward again.
+     * @return The number of ticks.
+     */
+    int getRedoable() {
+        return redoable;
+    }
+
+    /**
+     * Forgets all recorded ticks, keeping the allocated ring for reuse.
+     */
+    void clear() {
+        start = 0;
+        undoable = 0;
+        redoable = 0;
+    }
+
+    /**
+     * Gets the word offset of the n-th recorded tick, counting from the oldest.
+     * @param n The tick number, 0 being the oldest.
+     * @return The word offset of its slot in the ring.
+     */
+    private int slot(int n) {
+        return ((start + n) % capacity) * wordsPerTick;
+    }
+}
@@ -0,0 +1,145 @@
+package RobotSim;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Moves all robots using the incubating Vector API for the data-parallel part of a tick.
+ * Robots are handled in batches: their positions and directions are copied into primitive arrays, the candidate
+ * cell and the in-bounds check are worked out for a whole vector of robots at once, and then a scalar pass applies
+ * the occupancy check and the move or turn to each robot in list order, so the result is the same as Robot.tryToMove.
+ * This class must only be loaded when the jdk.incubator.vector module is present; see RobotArena.setVectorStepping.
+ */
+class VectorStepKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int BATCH = 1024;  // Robots gathered per batch, a multiple of any lane count
+
+    private static final int NORTH = Direction.NORTH.ordinal();
+    private static final int EAST = Direction.EAST.ordinal();
+    private static final int SOUTH = Direction.SOUTH.ordinal();
+    private static final int WEST = Direction.WEST.ordinal();
+    private static final Direction[] DIRECTIONS = Direction.values();  // values() copies the array on every call
+
+    private final Robot[] batch = new Robot[BATCH];  // Robots of the current batch
+    private final int[] xs = new int[BATCH];         // Current positions and direction ordinals
+    private final int[] ys = new int[BATCH];
+    private final int[] dirs = new int[BATCH];
+    private final int[] nxs = new int[BATCH];        // Candidate positions
+    private final int[] nys = new int[BATCH];
+    private final boolean[] inBounds = new boolean[BATCH];  // Whether each candidate lies inside the arena
+
+    /**
+     * Moves every robot once, in list order.
+     * @param arena The arena the robots are in.
+     * @param robots The arena's robots.
+     * @param history The tick history to record moves in, or null if the tick is not being recorded.
+     */
+    void moveAll(RobotArena arena, RobotList robots, TickHistory history) {
+        int xmax = arena.getXMax();
+        int ymax = arena.getYMax();
+        int size = robots.size();
+        for (int base = 0; base < size; base += BATCH) {
+            int n = Math.min(BATCH, size - base);
+
+            // Gather the batch into primitive arrays
+            for (int i = 0; i < n; i++) {
+                Robot r = robots.getForWrite(base + i);
+                batch[i] = r;
+                xs[i] = r.getX();
+                ys[i] = r.getY();
+                dirs[i] = r.getDirection().ordinal();
+            }
+
+            candidates(n, xmax, ymax);
+
+            // Occupancy depends on the robots moved before, so this part stays scalar and in order
+            for (int i = 0; i < n; i++) {
+                if (batch[i].completeMove(arena, inBounds[i], nxs[i], nys[i]) && history != null) {
+                    history.setMoved(base + i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out the candidate cell and whether it is inside the arena for the first n robots of the batch.
+     * @param n The number of robots in the batch.
+     * @param xmax The width of the arena.
+     * @param ymax The height of the arena.
+     */
+    private void candidates(int n, int xmax, int ymax) {
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            IntVector d = IntVector.fromArray(SPECIES, dirs, i);
+            IntVector x = IntVector.fromArray(SPECIES, xs, i);
+            IntVector y = IntVector.fromArray(SPECIES, ys, i);
+
+            // Step one cell in the lane's direction: EAST/WEST change x, SOUTH/NORTH change y
+            IntVector nx = x.add(1, d.eq(EAST)).sub(1, d.eq(WEST));
+            IntVector ny = y.add(1, d.eq(SOUTH)).sub(1, d.eq(NORTH));
+
+            VectorMask<Integer> in = nx.compare(VectorOperators.GE, 0)
+                    .and(nx.compare(VectorOperators.LT, xmax))
+                    .and(ny.compare(VectorOperators.GE, 0))
+                    .and(ny.compare(VectorOperators.LT, ymax));
+
+            nx.intoArray(nxs, i);
+            ny.intoArray(nys, i);
+            in.intoArray(inBounds, i);
+        }
+        for (; i < n; i++) {
+            // Tail that does not fill a whole vector
+            Direction d = DIRECTIONS[dirs[i]];
+            nxs[i] = xs[i] + d.dx();
+            nys[i] = ys[i] + d.dy();
+            inBounds[i] = nxs[i] >= 0 && nxs[i] < xmax && nys[i] >= 0 && nys[i] < ymax;
+        }
+    }
+
+    /**
+     * Main method comparing the scalar and vector stepping on a large, dense arena.
+     * Both arenas start from the same state; the final states are compared to check the kernels agree.
+     * Run with --add-modules jdk.incubator.vector.
+     * @param args Optional width, height, robot count and number of ticks.
+     */
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int ticks = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        RobotArena scalar = new RobotArena(width, height);
+        for (int i = 0; i < count; i++) {
+            scalar.addRobot();
+        }
+        RobotArena vector = scalar.fork();
+        scalar.setHistoryBudget(0);  // Measure the stepping alone
+        vector.setHistoryBudget(0);
+        vector.setVectorStepping(true);
+        System.out.println(SPECIES.length() + " int lanes, " + count + " robots in " + width + " x " + height);
+
+        for (int round = 0; round < 3; round++) {
+            // The first rounds warm up the JIT, the last one is the one to read
+            System.out.printf("scalar: %.2f ms/tick, vector: %.2f ms/tick%n", time(scalar, ticks), time(vector, ticks));
+        }
+        System.out.println("Same final state: " + scalar.toString().equals(vector.toString()));
+    }
+
+    /**
+     * Times a number of ticks of an arena.
+     * @param arena The arena to move.
+     * @param ticks The number of ticks to run.
+     * @return The average time per tick in milliseconds.
+     */
+    private static double time(RobotArena arena, int ticks) {
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            arena.moveAllRobots();
+        }
+        return (System.nanoTime() - start) / 1e6 / ticks;
+    }
+}
@@ -5,4 +5,6 @@
  * 
  */
 module RobotSim1 {
+    requires jdk.httpserver; // Used by QueryServer
+    requires static jdk.incubator.vector; // Optional, only used by VectorStepKernel
 }
\ No newline at end of file